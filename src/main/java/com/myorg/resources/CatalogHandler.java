@@ -24,10 +24,13 @@ public class CatalogHandler implements RequestHandler<APIGatewayProxyRequestEven
     private final DynamoDbClient dynamoDb = DynamoDbClient.builder().build();
     private final String tableName = System.getenv("CATALOG_TABLE_NAME");
 
+    private static final Set<String> PROJECTABLE_FIELDS = Set.of("productId", "name", "price", "version");
+
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent req, Context ctx) {
         String path = req.getPath();
         String method = req.getHttpMethod();
+        Map<String, String> params = req.getQueryStringParameters() != null ? req.getQueryStringParameters() : Map.of();
 
         try {
             if ("OPTIONS".equalsIgnoreCase(method)) {
@@ -37,10 +40,10 @@ public class CatalogHandler implements RequestHandler<APIGatewayProxyRequestEven
                 return respond(200, "{\"status\":\"healthy\"}");
             }
             if ("GET".equalsIgnoreCase(method) && path.matches("/catalog/\\w+")) {
-                return getProduct(path.substring(path.lastIndexOf("/") + 1));
+                return getProduct(path.substring(path.lastIndexOf("/") + 1), params);
             }
             if ("GET".equalsIgnoreCase(method)) {
-                return listProducts();
+                return listProducts(params);
             }
             if ("POST".equalsIgnoreCase(method)) {
                 return createProduct(req.getBody());
@@ -58,12 +61,21 @@ public class CatalogHandler implements RequestHandler<APIGatewayProxyRequestEven
         }
     }
 
-    private APIGatewayProxyResponseEvent getProduct(String productId) {
+    private APIGatewayProxyResponseEvent getProduct(String productId, Map<String, String> params) {
+        List<String> fields;
+        try {
+            fields = parseFields(params.get("fields"));
+        } catch (IllegalArgumentException e) {
+            return respond(400, "{\"error\":\"Invalid fields parameter\"}");
+        }
         try {
-            GetItemResponse resp = dynamoDb.getItem(GetItemRequest.builder()
+            GetItemRequest.Builder getReq = GetItemRequest.builder()
                 .tableName(tableName)
-                .key(Map.of("productId", AttributeValue.builder().s(productId).build()))
-                .build());
+                .key(Map.of("productId", AttributeValue.builder().s(productId).build()));
+            if (!fields.isEmpty()) {
+                getReq.projectionExpression(projectionExpression(fields)).expressionAttributeNames(projectionNames(fields));
+            }
+            GetItemResponse resp = dynamoDb.getItem(getReq.build());
             if (resp.hasItem()) {
                 return respond(200, gson.toJson(resp.item()));
             } else {
@@ -75,11 +87,20 @@ public class CatalogHandler implements RequestHandler<APIGatewayProxyRequestEven
         }
     }
 
-    private APIGatewayProxyResponseEvent listProducts() {
+    private APIGatewayProxyResponseEvent listProducts(Map<String, String> params) {
+        List<String> fields;
+        try {
+            fields = parseFields(params.get("fields"));
+        } catch (IllegalArgumentException e) {
+            return respond(400, "{\"error\":\"Invalid fields parameter\"}");
+        }
         try {
             List<Map<String, AttributeValue>> items = new ArrayList<>();
-            ScanRequest scanReq = ScanRequest.builder().tableName(tableName).build();
-            dynamoDb.scanPaginator(scanReq).stream().flatMap(r -> r.items().stream()).forEach(items::add);
+            ScanRequest.Builder scanReq = ScanRequest.builder().tableName(tableName);
+            if (!fields.isEmpty()) {
+                scanReq.projectionExpression(projectionExpression(fields)).expressionAttributeNames(projectionNames(fields));
+            }
+            dynamoDb.scanPaginator(scanReq.build()).stream().flatMap(r -> r.items().stream()).forEach(items::add);
             return respond(200, gson.toJson(items));
         } catch (Exception e) {
             logger.error("listProducts failed", e);
@@ -96,10 +117,17 @@ public class CatalogHandler implements RequestHandler<APIGatewayProxyRequestEven
             Map<String, AttributeValue> item = Map.of(
                 "productId", AttributeValue.builder().s(Encode.forHtml(json.get("productId").getAsString())).build(),
                 "name", AttributeValue.builder().s(Encode.forHtml(json.get("name").getAsString())).build(),
-                "price", AttributeValue.builder().n(json.get("price").getAsString()).build()
+                "price", AttributeValue.builder().n(json.get("price").getAsString()).build(),
+                "version", AttributeValue.builder().n("1").build()
             );
-            dynamoDb.putItem(PutItemRequest.builder().tableName(tableName).item(item).build());
+            dynamoDb.putItem(PutItemRequest.builder()
+                .tableName(tableName)
+                .item(item)
+                .conditionExpression("attribute_not_exists(productId)")
+                .build());
             return respond(201, "{\"message\":\"Product created\"}");
+        } catch (ConditionalCheckFailedException e) {
+            return respond(409, "{\"error\":\"Product already exists\"}");
         } catch (Exception e) {
             logger.error("createProduct failed", e);
             return respond(500, "{\"error\":\"Error creating product\"}");
@@ -109,12 +137,62 @@ public class CatalogHandler implements RequestHandler<APIGatewayProxyRequestEven
     private APIGatewayProxyResponseEvent updateProduct(String productId, String body) {
         try {
             JsonObject json = JsonParser.parseString(body).getAsJsonObject();
-            Map<String, AttributeValue> item = new HashMap<>();
-            item.put("productId", AttributeValue.builder().s(productId).build());
-            if (json.has("name")) item.put("name", AttributeValue.builder().s(Encode.forHtml(json.get("name").getAsString())).build());
-            if (json.has("price")) item.put("price", AttributeValue.builder().n(json.get("price").getAsString()).build());
-            dynamoDb.putItem(PutItemRequest.builder().tableName(tableName).item(item).build());
-            return respond(200, "{\"message\":\"Product updated\"}");
+            if (!json.has("version")) {
+                return respond(428, "{\"error\":\"Missing version\"}");
+            }
+            long expected;
+            try {
+                expected = Long.parseLong(json.get("version").getAsString());
+            } catch (RuntimeException e) {
+                return respond(400, "{\"error\":\"Invalid version\"}");
+            }
+            if (expected < 0) {
+                return respond(400, "{\"error\":\"Invalid version\"}");
+            }
+            List<String> sets = new ArrayList<>();
+            Map<String, String> names = new HashMap<>();
+            Map<String, AttributeValue> values = new HashMap<>();
+            if (json.has("name")) {
+                sets.add("#name = :name");
+                names.put("#name", "name");
+                values.put(":name", AttributeValue.builder().s(Encode.forHtml(json.get("name").getAsString())).build());
+            }
+            if (json.has("price")) {
+                sets.add("#price = :price");
+                names.put("#price", "price");
+                values.put(":price", AttributeValue.builder().n(json.get("price").getAsString()).build());
+            }
+            if (sets.isEmpty()) {
+                return respond(400, "{\"error\":\"No fields to update\"}");
+            }
+            sets.add("#version = if_not_exists(#version, :zero) + :one");
+            names.put("#version", "version");
+            names.put("#productId", "productId");
+            values.put(":zero", AttributeValue.builder().n("0").build());
+            values.put(":one", AttributeValue.builder().n("1").build());
+
+            String condition = expected == 0
+                ? "attribute_exists(#productId) AND (attribute_not_exists(#version) OR #version = :expected)"
+                : "attribute_exists(#productId) AND #version = :expected";
+            values.put(":expected", AttributeValue.builder().n(Long.toString(expected)).build());
+
+            UpdateItemResponse resp = dynamoDb.updateItem(UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("productId", AttributeValue.builder().s(productId).build()))
+                .updateExpression("SET " + String.join(", ", sets))
+                .conditionExpression(condition)
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(values)
+                .returnValues(ReturnValue.UPDATED_NEW)
+                .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD)
+                .build());
+            return respond(200, "{\"message\":\"Product updated\",\"version\":" + resp.attributes().get("version").n() + "}");
+        } catch (ConditionalCheckFailedException e) {
+            if (!e.hasItem()) {
+                return respond(404, "{\"error\":\"Product not found\"}");
+            }
+            String current = e.item().containsKey("version") ? e.item().get("version").n() : "0";
+            return respond(409, "{\"error\":\"Product was modified by another request\",\"version\":" + current + "}");
         } catch (Exception e) {
             logger.error("updateProduct failed", e);
             return respond(500, "{\"error\":\"Error updating product\"}");
@@ -138,6 +216,31 @@ public class CatalogHandler implements RequestHandler<APIGatewayProxyRequestEven
         }
     }
 
+    private static List<String> parseFields(String param) {
+        List<String> fields = new ArrayList<>();
+        if (param == null || param.isBlank()) {
+            return fields;
+        }
+        for (String field : param.split(",")) {
+            String name = field.trim();
+            if (!PROJECTABLE_FIELDS.contains(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name);
+            }
+            if (!fields.contains(name)) fields.add(name);
+        }
+        return fields;
+    }
+
+    private static String projectionExpression(List<String> fields) {
+        return String.join(", ", fields.stream().map(f -> "#" + f).toList());
+    }
+
+    private static Map<String, String> projectionNames(List<String> fields) {
+        Map<String, String> names = new HashMap<>();
+        fields.forEach(f -> names.put("#" + f, f));
+        return names;
+    }
+
     private APIGatewayProxyResponseEvent respond(int status, String body) {
         return new APIGatewayProxyResponseEvent()
             .withStatusCode(status)
@@ -24,23 +24,26 @@ public class ReviewHandler implements RequestHandler<APIGatewayProxyRequestEvent
     private final DynamoDbClient dynamoDb = DynamoDbClient.builder().build();
     private final String tableName = System.getenv("REVIEW_TABLE_NAME");
 
+    private static final Set<String> PROJECTABLE_FIELDS = Set.of("reviewId", "productId", "rating", "comment", "version");
+
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent req, Context ctx) {
         String path = req.getPath();
         String method = req.getHttpMethod();
+        Map<String, String> params = req.getQueryStringParameters() != null ? req.getQueryStringParameters() : Map.of();
 
         try {
             if ("OPTIONS".equalsIgnoreCase(method)) {
                 return respond(200, "");
             }
             if ("GET".equalsIgnoreCase(method) && path.matches("/reviews/product/\\w+")) {
-                return getProductReviews(path.substring(path.lastIndexOf("/") + 1));
+                return getProductReviews(path.substring(path.lastIndexOf("/") + 1), params);
             }
             if ("GET".equalsIgnoreCase(method) && path.matches("/reviews/\\w+")) {
                 return getReview(path.substring(path.lastIndexOf("/") + 1));
             }
             if ("GET".equalsIgnoreCase(method)) {
-                return listReviews();
+                return listReviews(params);
             }
             if ("POST".equalsIgnoreCase(method)) {
                 return createReview(req.getBody());
@@ -75,28 +78,49 @@ public class ReviewHandler implements RequestHandler<APIGatewayProxyRequestEvent
         }
     }
 
-    private APIGatewayProxyResponseEvent getProductReviews(String productId) {
+    private APIGatewayProxyResponseEvent getProductReviews(String productId, Map<String, String> params) {
+        List<String> fields;
+        int commentLength;
+        try {
+            fields = parseFields(params.get("fields"));
+            commentLength = parseCommentLength(params.get("commentLength"));
+        } catch (IllegalArgumentException e) {
+            return respond(400, "{\"error\":\"Invalid fields or commentLength parameter\"}");
+        }
         try {
-            QueryRequest queryReq = QueryRequest.builder()
+            QueryRequest.Builder queryReq = QueryRequest.builder()
                 .tableName(tableName)
                 .indexName("productId-index")
                 .keyConditionExpression("productId = :pid")
-                .expressionAttributeValues(Map.of(":pid", AttributeValue.builder().s(productId).build()))
-                .build();
-            QueryResponse resp = dynamoDb.query(queryReq);
-            return respond(200, gson.toJson(resp.items()));
+                .expressionAttributeValues(Map.of(":pid", AttributeValue.builder().s(productId).build()));
+            if (!fields.isEmpty()) {
+                queryReq.projectionExpression(projectionExpression(fields)).expressionAttributeNames(projectionNames(fields));
+            }
+            QueryResponse resp = dynamoDb.query(queryReq.build());
+            return respond(200, gson.toJson(truncateComments(resp.items(), commentLength)));
         } catch (Exception e) {
             logger.error("getProductReviews failed", e);
             return respond(500, "{\"error\":\"Error retrieving product reviews\"}");
         }
     }
 
-    private APIGatewayProxyResponseEvent listReviews() {
+    private APIGatewayProxyResponseEvent listReviews(Map<String, String> params) {
+        List<String> fields;
+        int commentLength;
+        try {
+            fields = parseFields(params.get("fields"));
+            commentLength = parseCommentLength(params.get("commentLength"));
+        } catch (IllegalArgumentException e) {
+            return respond(400, "{\"error\":\"Invalid fields or commentLength parameter\"}");
+        }
         try {
             List<Map<String, AttributeValue>> items = new ArrayList<>();
-            ScanRequest scanReq = ScanRequest.builder().tableName(tableName).build();
-            dynamoDb.scanPaginator(scanReq).stream().flatMap(r -> r.items().stream()).forEach(items::add);
-            return respond(200, gson.toJson(items));
+            ScanRequest.Builder scanReq = ScanRequest.builder().tableName(tableName);
+            if (!fields.isEmpty()) {
+                scanReq.projectionExpression(projectionExpression(fields)).expressionAttributeNames(projectionNames(fields));
+            }
+            dynamoDb.scanPaginator(scanReq.build()).stream().flatMap(r -> r.items().stream()).forEach(items::add);
+            return respond(200, gson.toJson(truncateComments(items, commentLength)));
         } catch (Exception e) {
             logger.error("listReviews failed", e);
             return respond(500, "{\"error\":\"Error listing reviews\"}");
@@ -114,7 +138,8 @@ public class ReviewHandler implements RequestHandler<APIGatewayProxyRequestEvent
                 "reviewId", AttributeValue.builder().s(Encode.forHtml(reviewId)).build(),
                 "productId", AttributeValue.builder().s(Encode.forHtml(json.get("productId").getAsString())).build(),
                 "rating", AttributeValue.builder().n(json.get("rating").getAsString()).build(),
-                "comment", AttributeValue.builder().s(Encode.forHtml(json.get("comment").getAsString())).build()
+                "comment", AttributeValue.builder().s(Encode.forHtml(json.get("comment").getAsString())).build(),
+                "version", AttributeValue.builder().n("1").build()
             );
             dynamoDb.putItem(PutItemRequest.builder().tableName(tableName).item(item).build());
             return respond(201, "{\"message\":\"Review created\"}");
@@ -127,13 +152,67 @@ public class ReviewHandler implements RequestHandler<APIGatewayProxyRequestEvent
     private APIGatewayProxyResponseEvent updateReview(String reviewId, String body) {
         try {
             JsonObject json = JsonParser.parseString(body).getAsJsonObject();
-            Map<String, AttributeValue> item = new HashMap<>();
-            item.put("reviewId", AttributeValue.builder().s(reviewId).build());
-            if (json.has("productId")) item.put("productId", AttributeValue.builder().s(Encode.forHtml(json.get("productId").getAsString())).build());
-            if (json.has("rating")) item.put("rating", AttributeValue.builder().n(json.get("rating").getAsString()).build());
-            if (json.has("comment")) item.put("comment", AttributeValue.builder().s(Encode.forHtml(json.get("comment").getAsString())).build());
-            dynamoDb.putItem(PutItemRequest.builder().tableName(tableName).item(item).build());
-            return respond(200, "{\"message\":\"Review updated\"}");
+            if (!json.has("version")) {
+                return respond(428, "{\"error\":\"Missing version\"}");
+            }
+            long expected;
+            try {
+                expected = Long.parseLong(json.get("version").getAsString());
+            } catch (RuntimeException e) {
+                return respond(400, "{\"error\":\"Invalid version\"}");
+            }
+            if (expected < 0) {
+                return respond(400, "{\"error\":\"Invalid version\"}");
+            }
+            List<String> sets = new ArrayList<>();
+            Map<String, String> names = new HashMap<>();
+            Map<String, AttributeValue> values = new HashMap<>();
+            if (json.has("productId")) {
+                sets.add("#productId = :productId");
+                names.put("#productId", "productId");
+                values.put(":productId", AttributeValue.builder().s(Encode.forHtml(json.get("productId").getAsString())).build());
+            }
+            if (json.has("rating")) {
+                sets.add("#rating = :rating");
+                names.put("#rating", "rating");
+                values.put(":rating", AttributeValue.builder().n(json.get("rating").getAsString()).build());
+            }
+            if (json.has("comment")) {
+                sets.add("#comment = :comment");
+                names.put("#comment", "comment");
+                values.put(":comment", AttributeValue.builder().s(Encode.forHtml(json.get("comment").getAsString())).build());
+            }
+            if (sets.isEmpty()) {
+                return respond(400, "{\"error\":\"No fields to update\"}");
+            }
+            sets.add("#version = if_not_exists(#version, :zero) + :one");
+            names.put("#version", "version");
+            names.put("#reviewId", "reviewId");
+            values.put(":zero", AttributeValue.builder().n("0").build());
+            values.put(":one", AttributeValue.builder().n("1").build());
+
+            String condition = expected == 0
+                ? "attribute_exists(#reviewId) AND (attribute_not_exists(#version) OR #version = :expected)"
+                : "attribute_exists(#reviewId) AND #version = :expected";
+            values.put(":expected", AttributeValue.builder().n(Long.toString(expected)).build());
+
+            UpdateItemResponse resp = dynamoDb.updateItem(UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("reviewId", AttributeValue.builder().s(reviewId).build()))
+                .updateExpression("SET " + String.join(", ", sets))
+                .conditionExpression(condition)
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(values)
+                .returnValues(ReturnValue.UPDATED_NEW)
+                .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD)
+                .build());
+            return respond(200, "{\"message\":\"Review updated\",\"version\":" + resp.attributes().get("version").n() + "}");
+        } catch (ConditionalCheckFailedException e) {
+            if (!e.hasItem()) {
+                return respond(404, "{\"error\":\"Review not found\"}");
+            }
+            String current = e.item().containsKey("version") ? e.item().get("version").n() : "0";
+            return respond(409, "{\"error\":\"Review was modified by another request\",\"version\":" + current + "}");
         } catch (Exception e) {
             logger.error("updateReview failed", e);
             return respond(500, "{\"error\":\"Error updating review\"}");
@@ -157,6 +236,66 @@ public class ReviewHandler implements RequestHandler<APIGatewayProxyRequestEvent
         }
     }
 
+    private static List<String> parseFields(String param) {
+        List<String> fields = new ArrayList<>();
+        if (param == null || param.isBlank()) {
+            return fields;
+        }
+        for (String field : param.split(",")) {
+            String name = field.trim();
+            if (!PROJECTABLE_FIELDS.contains(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name);
+            }
+            if (!fields.contains(name)) fields.add(name);
+        }
+        return fields;
+    }
+
+    private static int parseCommentLength(String param) {
+        if (param == null) {
+            return -1;
+        }
+        int commentLength = Integer.parseInt(param.trim());
+        if (commentLength < 0) {
+            throw new IllegalArgumentException("Negative commentLength: " + commentLength);
+        }
+        return commentLength;
+    }
+
+    private static String projectionExpression(List<String> fields) {
+        return String.join(", ", fields.stream().map(f -> "#" + f).toList());
+    }
+
+    private static Map<String, String> projectionNames(List<String> fields) {
+        Map<String, String> names = new HashMap<>();
+        fields.forEach(f -> names.put("#" + f, f));
+        return names;
+    }
+
+    private static List<Map<String, AttributeValue>> truncateComments(List<Map<String, AttributeValue>> items, int commentLength) {
+        if (commentLength < 0) {
+            return items;
+        }
+        List<Map<String, AttributeValue>> truncated = new ArrayList<>(items.size());
+        for (Map<String, AttributeValue> item : items) {
+            AttributeValue comment = item.get("comment");
+            if (comment == null || comment.s() == null || comment.s().length() <= commentLength) {
+                truncated.add(item);
+                continue;
+            }
+            // Stored comments are HTML-encoded and may contain emoji; never split an entity or a surrogate pair
+            String text = comment.s();
+            int end = commentLength;
+            int amp = text.lastIndexOf('&', end - 1);
+            if (amp >= 0 && text.indexOf(';', amp) >= end) end = amp;
+            if (end > 0 && Character.isHighSurrogate(text.charAt(end - 1))) end--;
+            Map<String, AttributeValue> copy = new HashMap<>(item);
+            copy.put("comment", AttributeValue.builder().s(text.substring(0, end)).build());
+            truncated.add(copy);
+        }
+        return truncated;
+    }
+
     private APIGatewayProxyResponseEvent respond(int status, String body) {
         return new APIGatewayProxyResponseEvent()
             .withStatusCode(status)